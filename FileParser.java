@@ -6,7 +6,7 @@
  * - David Kujawinski
  * - Dinh Troung
  * 
- * Date Last Modified: 4/9/2025
+ * Date Last Modified: 10/19/2026
  */
 
 import java.io.BufferedReader;
@@ -144,4 +144,78 @@ public class FileParser {
             System.out.println("Error reading file: " + e.getMessage());
         } 
     }
+
+    public static int parseNumNodes(String trainedWeightsFileName){
+    /*
+    Parses only the number of nodes from the header of a trained weights file
+
+    Parameters:
+    - String trainedWeightsFileName: File name of trained weights file
+
+    Return:
+    int representing number of nodes, or -1 if the file could not be read
+    */
+        try (BufferedReader reader = new BufferedReader(new FileReader(trainedWeightsFileName))){
+            String line = reader.readLine();
+            if (line == null){
+                System.out.println("Error reading file: " + trainedWeightsFileName + " is empty");
+                return -1;
+            }
+            String[] parts = line.trim().split("\\s+");
+            int numInputNodes = Integer.parseInt(parts[0]);
+            if (numInputNodes <= 0){
+                System.out.println("Error reading file: " + trainedWeightsFileName + " has no nodes");
+                return -1;
+            }
+            return numInputNodes;
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    public static int[][] parseTrainedWeightColumns(String trainedWeightsFileName, int firstColumn, int lastColumn){
+    /*
+    Parses one range of columns of a trained weights file.  Every row is read but only
+    the columns in the range are kept, so only that slice of the weight matrix is held
+    in memory
+
+    Parameters:
+    - String trainedWeightsFileName: File name of trained weights file
+    - int firstColumn: first column to keep
+    - int lastColumn: column after the last column to keep
+
+    Return:
+    int[][] where [j][i] holds the weight in row j, column firstColumn + i, or null if the file could not be read
+    */
+        try (BufferedReader reader = new BufferedReader(new FileReader(trainedWeightsFileName))){
+            // Parse number of input nodes
+            String line;
+            line = reader.readLine();
+            String[] parts = line.trim().split("\\s+");
+            int numInputNodes = Integer.parseInt(parts[0]);
+
+            // Parse node weights in the range of every row
+            int[][] weightColumns = new int[numInputNodes][lastColumn - firstColumn];
+            for (int rowNum = 0; rowNum < numInputNodes; rowNum++){
+                line = reader.readLine();
+                if (line == null){
+                    System.out.println("Error reading file: " + trainedWeightsFileName + " ends before row " + rowNum);
+                    return null;
+                }
+                parts = line.trim().split("\\s+");
+                if (parts.length < lastColumn){
+                    System.out.println("Error reading file: " + trainedWeightsFileName + " row " + rowNum + " is too short");
+                    return null;
+                }
+                for (int columnNum = firstColumn; columnNum < lastColumn; columnNum++){
+                    weightColumns[rowNum][columnNum - firstColumn] = Integer.parseInt(parts[columnNum]);
+                }
+            }
+            return weightColumns;
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+            return null;
+        }
+    }
 }
\ No newline at end of file
@@ -8,7 +8,7 @@
  * - David Kujawinski
  * - Dinh Troung
  * 
- * Date Last Modified: 4/9/2025
+ * Date Last Modified: 10/19/2026
  */
 
 import java.io.BufferedWriter;
@@ -17,7 +17,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class NeuralNet {
     public static boolean train(TrainingSettings netTrainingSettings){
@@ -108,65 +110,438 @@ public class NeuralNet {
     Return:
     - int[][] of the classified samples.
     */
+        RecallResult[] recallResults = recall(netTestingSettings);
+        if (recallResults == null){
+            return null;
+        }
+        int[][] netClassifications = new int[recallResults.length][];
+        for (int sampleNum = 0; sampleNum < recallResults.length; sampleNum++){
+            netClassifications[sampleNum] = recallResults[sampleNum].getBestState();
+        }
+        return netClassifications;
+    }
+
+    public static RecallResult[] recall(TestingSettings netTestingSettings){
+    /*
+    Runs bounded recall on every sample of the testing dataset.
+
+    Parameters:
+    -Testing Settings netTestingSettings: Data structure that holds testing information provided by user.
+
+    Return:
+    - RecallResult[] holding the status and best state reached for each sample.
+    */
+        // Split the net across worker processes if asked to
+        if (netTestingSettings.numShards > 1){
+            ShardedRecallResult shardedResult = ShardCoordinator.recall(netTestingSettings);
+            return shardedResult == null ? null : shardedResult.getRecallResults();
+        }
+
         // Load trained weight matrices from file
         int [][] trainedWeightMatrix = netTestingSettings.trainedWeightMatrix;
-        int numNodes = netTestingSettings.numNodes;
 
         // Get dataset to test
         List<DataSample> dataset = netTestingSettings.dataset;
-        int[][] netClassifications = new int[dataset.size()][numNodes];
+        RecallResult[] recallResults = new RecallResult[dataset.size()];
+
+        // The greedy queue depends only on the weights, so build it once for every sample
+        UnstableNeuronQueue unstableNodes = null;
+        if (netTestingSettings.updateOrder == TestingSettings.UpdateOrder.GREEDY){
+            unstableNodes = createUnstableNeuronQueue(trainedWeightMatrix);
+        }
 
         //Initialize sample number and go through each sample 
         int sampleNum = 0;
         for (DataSample sample : dataset){
+            recallResults[sampleNum] = recallSample(trainedWeightMatrix, sample.getPixelArray(), netTestingSettings, unstableNodes);
+            sampleNum++;
+        }
+        return recallResults;
+    }
 
-            //Initialize converged, input array, and output array for each sample run. 
-            boolean converged = false;
-            int[] xArray = sample.getPixelArray();
-            int[] yArray = Arrays.copyOf(xArray, xArray.length);
+    public static RecallResult recallSample(int[][] weightMatrix, int[] inputArray, TestingSettings netTestingSettings){
+    /*
+    Recalls a single sample using the update order chosen in netTestingSettings.
+
+    Parameters:
+    - int[][] weightMatrix: Matrix of trained weight values
+    - int[] inputArray: pixel array of the sample to recall
+    - TestingSettings netTestingSettings: holds the update order, sweep and time limits
+
+    Return:
+    - RecallResult holding the status, best state and work done for the sample
+    */
+        return recallSample(weightMatrix, inputArray, netTestingSettings, null);
+    }
+
+    public static RecallResult recallSample(int[][] weightMatrix, int[] inputArray, TestingSettings netTestingSettings,
+            UnstableNeuronQueue unstableNodes){
+    /*
+    Recalls a single sample using the update order chosen in netTestingSettings, reusing
+    a queue from createUnstableNeuronQueue for the greedy order when one is given.
+
+    Parameters:
+    - int[][] weightMatrix: Matrix of trained weight values
+    - int[] inputArray: pixel array of the sample to recall
+    - TestingSettings netTestingSettings: holds the update order, sweep and time limits
+    - UnstableNeuronQueue unstableNodes: queue for the greedy order, or null to build one
+
+    Return:
+    - RecallResult holding the status, best state and work done for the sample
+    */
+        switch (netTestingSettings.updateOrder){
+            case GREEDY:
+                if (unstableNodes == null){
+                    unstableNodes = createUnstableNeuronQueue(weightMatrix);
+                }
+                return recallSampleGreedy(weightMatrix, inputArray, netTestingSettings, unstableNodes);
+            case SYNCHRONOUS:
+                return recallSampleSynchronous(weightMatrix, inputArray, netTestingSettings);
+            case RANDOM:
+            default:
+                return recallSampleRandom(weightMatrix, inputArray, netTestingSettings);
+        }
+    }
+
+    private static RecallResult recallSampleRandom(int[][] weightMatrix, int[] inputArray, TestingSettings netTestingSettings){
+    /*
+    Recalls a single sample with random order asynchronous updates, evaluating every
+    node on each sweep.  Stops when the net converges, when a previously seen state
+    repeats, or when the sweep or time budget in netTestingSettings runs out.  The lowest energy state seen is kept as
+    the best state, so a sample that does not converge still reports a usable answer.
+
+    Parameters:
+    - int[][] weightMatrix: Matrix of trained weight values
+    - int[] inputArray: pixel array of the sample to recall
+    - TestingSettings netTestingSettings: holds the sweep and time limits
+
+    Return:
+    - RecallResult holding the status, best state and work done for the sample
+    */
+        int numNodes = inputArray.length;
+        long deadline = System.nanoTime() + netTestingSettings.maxRecallMillis * 1_000_000L;
+
+        //Initialize output array, best state and seen states for the sample
+        int[] yArray = Arrays.copyOf(inputArray, numNodes);
+        int[] bestArray = Arrays.copyOf(yArray, numNodes);
+        long energy = 0;
+        long bestEnergy = 0;
+        Map<Integer, List<long[]>> seenStates = new HashMap<>();
+        recordState(seenStates, yArray);
+
+        //Create list of indices that will be used to randomly select nodes
+        List<Integer> nodes = new ArrayList<>(numNodes);
+        for (int i = 0; i < numNodes; i++){
+            nodes.add(i);
+        }
+
+        int sweeps = 0;
+        long fieldEvaluations = 0;
+        while (sweeps < netTestingSettings.maxSweeps){
+            //Randomize the indices
+            Collections.shuffle(nodes);
+            boolean activationChanged = false;
 
-            //Create list of indices that will be used to randomly select nodes
-            List<Integer> nodes = new ArrayList<>(numNodes);
             for (int i = 0; i < numNodes; i++){
-                nodes.add(i);
+                //Stop mid sweep once the time budget is spent
+                if (System.nanoTime() - deadline > 0){
+                    if (energy < bestEnergy){
+                        bestArray = yArray;
+                    }
+                    return new RecallResult(RecallResult.Status.BUDGET_EXHAUSTED, bestArray, sweeps, fieldEvaluations);
+                }
+
+                //Get random index
+                int index = nodes.get(i);
+
+                //Calculate yIn and yOut, input value of a node is its state at the start of the sweep
+                int yIn = calculateYIn(weightMatrix, yArray, index, yArray);
+                int yOut = applyActivationFunction(yIn, yArray[index]);
+                fieldEvaluations++;
+
+                //Check for change in output values, and track the energy drop of the flip
+                if (yArray[index] != yOut){
+                    energy += calculateEnergyChange(weightMatrix, yArray, index, yIn, yOut);
+                    yArray[index] = yOut;
+                    activationChanged = true;
+                }
+            }
+            sweeps++;
+
+            //Check for convergence
+            if (activationChanged == false){
+                return new RecallResult(RecallResult.Status.CONVERGED, yArray, sweeps, fieldEvaluations);
+            }
+            if (energy < bestEnergy){
+                bestEnergy = energy;
+                bestArray = Arrays.copyOf(yArray, numNodes);
             }
 
-            while(!converged){
-                //Randomize the indices
-                Collections.shuffle(nodes);
+            //Check for a repeated state
+            if (!recordState(seenStates, yArray)){
+                return new RecallResult(RecallResult.Status.CYCLED, bestArray, sweeps, fieldEvaluations);
+            }
+        }
+        return new RecallResult(RecallResult.Status.BUDGET_EXHAUSTED, bestArray, sweeps, fieldEvaluations);
+    }
 
-                //Set output array equal to input array 
-                yArray = Arrays.copyOf(xArray, xArray.length);
-                boolean activationChanged = false;
+    public static UnstableNeuronQueue createUnstableNeuronQueue(int[][] weightMatrix){
+    /*
+    Creates the queue used by the greedy order, with one bucket for every |yIn| a node
+    can reach.  Takes one pass over the weights, so it is built once per weight matrix
+    rather than once per sample.
 
-                for (int i = 0; i < numNodes; i++){
-                    //Get random index
-                    int index = nodes.get(i);
+    Parameters:
+    - int[][] weightMatrix: Matrix of trained weight values
 
-                    //Calculate yIn and yOut
-                    int yIn = calculateYIn(trainedWeightMatrix, xArray, index, yArray);
-                    int yOut = applyActivationFunction(yIn, yArray[index]);
-                    
-                    //Check for change in output values
-                    if (yArray[index] != yOut){
-                        yArray[index] = yOut;
-                        activationChanged = true;
-                    }
+    Return:
+    - UnstableNeuronQueue sized for weightMatrix
+    */
+        int numNodes = weightMatrix.length;
+
+        //|yIn| of a node can never exceed 1 + the sum of |weights| into it
+        long[] maxYInArray = new long[numNodes];
+        Arrays.fill(maxYInArray, 1);
+        for (int[] weightRow : weightMatrix){
+            for (int i = 0; i < numNodes; i++){
+                maxYInArray[i] += Math.abs((long) weightRow[i]);
+            }
+        }
+        long maxPriority = 0;
+        for (long maxYIn : maxYInArray){
+            maxPriority = Math.max(maxPriority, maxYIn);
+        }
+        return new UnstableNeuronQueue(numNodes, maxPriority);
+    }
+
+    private static RecallResult recallSampleGreedy(int[][] weightMatrix, int[] inputArray, TestingSettings netTestingSettings,
+            UnstableNeuronQueue unstableNodes){
+    /*
+    Recalls a single sample by only updating unstable neurons, those whose local field
+    disagrees in sign with their state.  Local fields are computed once, then kept up to
+    date with one row of the weight matrix per flip, and the neuron with the largest
+    |local field| is always flipped first.  Recall converges as soon as no neuron is
+    unstable, which is the same fixed point the random order stops at.
+
+    Every numNodes flips count as one sweep for the sweep limit, best state and
+    cycle checks.  The time budget is checked before every flip.  The reported sweeps
+    round a partial sweep up, and the first pass over every node counts as a sweep
+    even when nothing flips.
+
+    Parameters:
+    - int[][] weightMatrix: Matrix of trained weight values
+    - int[] inputArray: pixel array of the sample to recall
+    - TestingSettings netTestingSettings: holds the sweep and time limits
+    - UnstableNeuronQueue unstableNodes: queue from createUnstableNeuronQueue, cleared before use
+
+    Return:
+    - RecallResult holding the status, best state and work done for the sample
+    */
+        int numNodes = inputArray.length;
+        long deadline = System.nanoTime() + netTestingSettings.maxRecallMillis * 1_000_000L;
+
+        //Initialize output array, best state and seen states for the sample
+        int[] yArray = Arrays.copyOf(inputArray, numNodes);
+        int[] bestArray = Arrays.copyOf(yArray, numNodes);
+        long energy = 0;
+        long bestEnergy = 0;
+        Map<Integer, List<long[]>> seenStates = new HashMap<>();
+        recordState(seenStates, yArray);
+
+        //Calculate yIn of every node once
+        int[] yInArray = new int[numNodes];
+        for (int i = 0; i < numNodes; i++){
+            yInArray[i] = calculateYIn(weightMatrix, yArray, i, yArray);
+        }
+        long fieldEvaluations = numNodes;
+
+        //Queue every node whose activation would change
+        unstableNodes.clear();
+        for (int i = 0; i < numNodes; i++){
+            if (applyActivationFunction(yInArray[i], yArray[i]) != yArray[i]){
+                unstableNodes.update(i, Math.abs(yInArray[i]));
+            }
+        }
+
+        int sweeps = 0;
+        int flips = 0;
+        while (!unstableNodes.isEmpty()){
+            if (sweeps >= netTestingSettings.maxSweeps || System.nanoTime() - deadline > 0){
+                if (energy < bestEnergy){
+                    bestArray = yArray;
                 }
+                return new RecallResult(RecallResult.Status.BUDGET_EXHAUSTED, bestArray, countGreedySweeps(flips, numNodes), fieldEvaluations);
+            }
+
+            //Flip the most unstable node
+            int index = unstableNodes.poll();
+            int yOut = -yArray[index];
+            energy += calculateEnergyChange(weightMatrix, yArray, index, yInArray[index], yOut);
+            yArray[index] = yOut;
 
-                //Check for convergence, if not converged
-                //set input array equal to output array and start over
-                if (activationChanged == false){
-                    converged = true;
-                }else{
-                    xArray = Arrays.copyOf(yArray, yArray.length);;
+            //Update yIn of every node with the flipped node's row of weights
+            int delta = 2 * yOut;
+            int[] weightRow = weightMatrix[index];
+            yInArray[index] += delta;
+            for (int i = 0; i < numNodes; i++){
+                yInArray[i] += weightRow[i] * delta;
+                if (applyActivationFunction(yInArray[i], yArray[i]) != yArray[i]){
+                    unstableNodes.update(i, Math.abs(yInArray[i]));
+                } else{
+                    unstableNodes.remove(i);
+                }
+            }
+            fieldEvaluations++;
+
+            //Treat every numNodes flips as a sweep
+            flips++;
+            if (flips % numNodes == 0){
+                sweeps++;
+                if (energy < bestEnergy){
+                    bestEnergy = energy;
+                    bestArray = Arrays.copyOf(yArray, numNodes);
+                }
+                if (!recordState(seenStates, yArray)){
+                    return new RecallResult(RecallResult.Status.CYCLED, bestArray, countGreedySweeps(flips, numNodes), fieldEvaluations);
                 }
             }
-            //Save output and move to next sample
-            netClassifications[sampleNum] = yArray;
-            sampleNum++;
         }
-        return netClassifications;
+        return new RecallResult(RecallResult.Status.CONVERGED, yArray, countGreedySweeps(flips, numNodes), fieldEvaluations);
+    }
+
+    private static int countGreedySweeps(int flips, int numNodes){
+    /*
+    Converts greedy flips to sweeps for reporting, rounding a partial sweep up.
+
+    Parameters:
+    - int flips: number of flips made
+    - int numNodes: number of nodes in the net
+
+    Return:
+    - int representing sweeps, at least 1 for the first pass over every node
+    */
+        return Math.max(1, (flips + numNodes - 1) / numNodes);
+    }
+
+    private static RecallResult recallSampleSynchronous(int[][] weightMatrix, int[] inputArray, TestingSettings netTestingSettings){
+    /*
+    Recalls a single sample with synchronous updates, where every node computes its
+    next output from the state at the start of the sweep.  Synchronous updates can
+    settle into a two state cycle, which the cycle check reports.  The time budget is
+    checked once per sweep so results line up with ShardCoordinator.
+
+    Parameters:
+    - int[][] weightMatrix: Matrix of trained weight values
+    - int[] inputArray: pixel array of the sample to recall
+    - TestingSettings netTestingSettings: holds the sweep and time limits
+
+    Return:
+    - RecallResult holding the status, best state and work done for the sample
+    */
+        int numNodes = inputArray.length;
+        long deadline = System.nanoTime() + netTestingSettings.maxRecallMillis * 1_000_000L;
+
+        //Initialize output array, best state and seen states for the sample
+        int[] yArray = Arrays.copyOf(inputArray, numNodes);
+        int[] bestArray = Arrays.copyOf(yArray, numNodes);
+        long bestEnergy = Long.MAX_VALUE;
+        Map<Integer, List<long[]>> seenStates = new HashMap<>();
+        recordState(seenStates, yArray);
+
+        int sweeps = 0;
+        long fieldEvaluations = 0;
+        while (sweeps < netTestingSettings.maxSweeps && System.nanoTime() - deadline <= 0){
+            //Calculate yIn and yOut of every node from the current state
+            int[] nextArray = new int[numNodes];
+            long energy = 0;
+            boolean activationChanged = false;
+            for (int i = 0; i < numNodes; i++){
+                int yIn = calculateYIn(weightMatrix, yArray, i, yArray);
+                nextArray[i] = applyActivationFunction(yIn, yArray[i]);
+                energy -= (long) yArray[i] * (yIn - yArray[i]);
+                if (nextArray[i] != yArray[i]){
+                    activationChanged = true;
+                }
+            }
+            fieldEvaluations += numNodes;
+            sweeps++;
+
+            //Energy of the state the sweep started from
+            if (energy < bestEnergy){
+                bestEnergy = energy;
+                bestArray = yArray;
+            }
+
+            //Check for convergence, then for a repeated state
+            if (activationChanged == false){
+                return new RecallResult(RecallResult.Status.CONVERGED, yArray, sweeps, fieldEvaluations);
+            }
+            yArray = nextArray;
+            if (!recordState(seenStates, yArray)){
+                return new RecallResult(RecallResult.Status.CYCLED, bestArray, sweeps, fieldEvaluations);
+            }
+        }
+        return new RecallResult(RecallResult.Status.BUDGET_EXHAUSTED, bestArray, sweeps, fieldEvaluations);
+    }
+
+    static long calculateEnergyChange(int[][] weightMatrix, int[] yArray, int neuronNum, int yIn, int yOut){
+    /*
+    Calculates how much flipping one node changes the energy -sum_i y_i * (yIn_i - y_i),
+    the same energy synchronous recall and ShardCoordinator compute directly.  That
+    energy depends only on the symmetric part of the weights, so the change needs both
+    the node's column (already in yIn) and its row of weights, and it stays a function
+    of the state even for asymmetric weight files.
+
+    Parameters:
+    - int[][] weightMatrix: Matrix of trained weight values
+    - int[] yArray: current output values, before the flip
+    - int neuronNum: index of the node being flipped
+    - int yIn: yIn of the node for the current output values
+    - int yOut: new output of the node
+
+    Return:
+    - long representing the change in energy
+    */
+        int prevY = yArray[neuronNum];
+        int[] weightRow = weightMatrix[neuronNum];
+        long rowSum = 0;
+        for (int j = 0; j < yArray.length; j++){
+            rowSum += (long) weightRow[j] * yArray[j];
+        }
+        long columnSum = yIn - prevY;
+
+        //Both sums include the node's own weight, which the flip does not change
+        long selfTerm = 2L * weightRow[neuronNum] * prevY;
+        return -2L * yOut * (columnSum + rowSum - selfTerm);
+    }
+
+    static boolean recordState(Map<Integer, List<long[]>> seenStates, int[] state){
+    /*
+    Records state in seenStates, keyed by its hash.  States are stored as one bit
+    per node, set for a 1 and clear for a -1, so a long recall keeps its history small.
+
+    Parameters:
+    - Map<Integer, List<long[]>> seenStates: packed states seen so far, bucketed by hash
+    - int[] state: state to record
+
+    Return:
+    - boolean, false if state had already been seen
+    */
+        long[] packedState = new long[(state.length + 63) / 64];
+        for (int i = 0; i < state.length; i++){
+            if (state[i] > 0){
+                packedState[i / 64] |= 1L << (i % 64);
+            }
+        }
+
+        List<long[]> bucket = seenStates.computeIfAbsent(Arrays.hashCode(packedState), k -> new ArrayList<>());
+        for (long[] seenState : bucket){
+            if (Arrays.equals(seenState, packedState)){
+                return false;
+            }
+        }
+        bucket.add(packedState);
+        return true;
     }
 
     public static int calculateYIn(int[][] weightMatrix, int[] xArray, int neuronNum, int[] yArray) {
@@ -0,0 +1,50 @@
+/*
+ * This program is a data structure to hold the outcome of recalling one sample.
+ * 
+ * Authors:
+ * - Cory Tamburrino
+ * - David Kujawinski
+ * - Dinh Troung
+ * 
+ * Date Last Modified: 10/19/2026
+ */
+
+public class RecallResult {
+    // Reason recall stopped for a sample
+    public enum Status {
+        CONVERGED,
+        CYCLED,
+        BUDGET_EXHAUSTED
+    }
+
+    // Instance Variables
+    private Status status;
+    private int[] bestState;
+    private int sweeps;
+    private long fieldEvaluations;
+
+    // Constructor
+    public RecallResult(Status status, int[] bestState, int sweeps, long fieldEvaluations){
+        this.status = status;
+        this.bestState = bestState;
+        this.sweeps = sweeps;
+        this.fieldEvaluations = fieldEvaluations;
+    }
+
+    // Getters
+    public Status getStatus(){
+        return status;
+    }
+
+    public int[] getBestState(){
+        return bestState;
+    }
+
+    public int getSweeps(){
+        return sweeps;
+    }
+
+    public long getFieldEvaluations(){
+        return fieldEvaluations;
+    }
+}
@@ -0,0 +1,409 @@
+/*
+ * This program runs recall with the net split across several local worker processes,
+ * for nets whose weight matrix is too large for one process.  Each ShardWorker holds
+ * the columns of the weight matrix for one range of nodes, and the coordinator holds
+ * the current state plus one bit per node for each state kept for cycle detection.
+ * Workers are reached over sockets on the loopback address, and after the first sweep
+ * of a sample only the indices of flipped nodes are exchanged.
+ * 
+ * Updates are synchronous, so results match NeuralNet.recall with the SYNCHRONOUS
+ * update order.
+ * 
+ * Authors:
+ * - Cory Tamburrino
+ * - David Kujawinski
+ * - Dinh Troung
+ * 
+ * Date Last Modified: 10/19/2026
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class ShardCoordinator implements AutoCloseable {
+    // How long to wait for workers to load their weights and connect
+    private static final int CONNECT_TIMEOUT_MILLIS = 120000;
+
+    // How often to check that workers are still alive while waiting for them
+    private static final int ACCEPT_POLL_MILLIS = 200;
+
+    // Instance Variables
+    private int numNodes;
+    private int numShards;
+    private int[] shardFirstNode;
+    private Process[] workers;
+    private Socket[] sockets;
+    private DataInputStream[] inputs;
+    private DataOutputStream[] outputs;
+    private ExecutorService replyReaders;
+    private long[] shardComputeNanos;
+    private long[] shardWaitNanos;
+    private long[] replyEnergy;
+    private long[] replyArrivalNanos;
+    private List<Future<int[]>> pendingReplies;
+
+    // Constructor
+    public ShardCoordinator(String trainedWeightsFileName, int numNodes, int numShards) throws IOException{
+        this.numNodes = numNodes;
+        this.numShards = Math.max(1, Math.min(numShards, numNodes));
+        this.shardFirstNode = new int[this.numShards + 1];
+        for (int s = 0; s <= this.numShards; s++){
+            shardFirstNode[s] = (int) ((long) s * numNodes / this.numShards);
+        }
+        this.workers = new Process[this.numShards];
+        this.sockets = new Socket[this.numShards];
+        this.inputs = new DataInputStream[this.numShards];
+        this.outputs = new DataOutputStream[this.numShards];
+        this.replyReaders = Executors.newFixedThreadPool(this.numShards, runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.shardComputeNanos = new long[this.numShards];
+        this.shardWaitNanos = new long[this.numShards];
+        this.replyEnergy = new long[this.numShards];
+        this.replyArrivalNanos = new long[this.numShards];
+
+        try (ServerSocket serverSocket = new ServerSocket(0, this.numShards, InetAddress.getLoopbackAddress())){
+            startWorkers(trainedWeightsFileName, serverSocket.getLocalPort());
+            acceptWorkers(serverSocket);
+        } catch (IOException | RuntimeException e){
+            close();
+            throw e;
+        }
+    }
+
+    private void startWorkers(String trainedWeightsFileName, int port) throws IOException{
+    /*
+    Starts one ShardWorker process per shard with the same java and classpath as this process.
+
+    Parameters:
+    - String trainedWeightsFileName: trained weights file each worker loads its columns from
+    - int port: port the coordinator is listening on
+    */
+        String javaBin = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        String classPath = System.getProperty("java.class.path");
+        for (int s = 0; s < numShards; s++){
+            ProcessBuilder builder = new ProcessBuilder(javaBin, "-cp", classPath, "ShardWorker",
+                    String.valueOf(port), String.valueOf(s), trainedWeightsFileName,
+                    String.valueOf(shardFirstNode[s]), String.valueOf(shardFirstNode[s + 1]));
+            builder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+            builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            workers[s] = builder.start();
+        }
+    }
+
+    private void acceptWorkers(ServerSocket serverSocket) throws IOException{
+    /*
+    Accepts one connection per worker.  Each worker sends its shard number first, which
+    must be in range and not already taken.  Waits in short steps so a worker that exits
+    during startup, for example on a bad weights file, fails recall straight away.
+
+    Parameters:
+    - ServerSocket serverSocket: socket the workers connect to
+    */
+        serverSocket.setSoTimeout(ACCEPT_POLL_MILLIS);
+        long deadline = System.nanoTime() + CONNECT_TIMEOUT_MILLIS * 1_000_000L;
+        int numConnected = 0;
+        while (numConnected < numShards){
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketTimeoutException e){
+                for (int s = 0; s < numShards; s++){
+                    if (sockets[s] == null && !workers[s].isAlive()){
+                        throw new IOException("shard " + s + " exited with code " + workers[s].exitValue() + " during startup");
+                    }
+                }
+                if (System.nanoTime() - deadline > 0){
+                    throw new IOException("timed out waiting for workers to connect");
+                }
+                continue;
+            }
+
+            //Read the shard number, without waiting forever on a client that sends nothing
+            int shardNum;
+            try {
+                socket.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+                socket.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                shardNum = in.readInt();
+                if (shardNum < 0 || shardNum >= numShards || sockets[shardNum] != null){
+                    throw new IOException("unexpected shard number " + shardNum + " from a worker connection");
+                }
+                socket.setSoTimeout(0);
+                sockets[shardNum] = socket;
+                inputs[shardNum] = in;
+                outputs[shardNum] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            } catch (IOException e){
+                socket.close();
+                throw e;
+            }
+            numConnected++;
+        }
+    }
+
+    public static ShardedRecallResult recall(TestingSettings netTestingSettings){
+    /*
+    Runs sharded recall on every sample of the testing dataset.
+
+    Parameters:
+    -Testing Settings netTestingSettings: Data structure that holds testing information provided by user.
+
+    Return:
+    - ShardedRecallResult holding the result of each sample and the per shard timing report, or null on failure.
+    */
+        int numNodes = FileParser.parseNumNodes(netTestingSettings.trainedWeightsFilePath);
+        if (numNodes < 0){
+            return null;
+        }
+        netTestingSettings.numNodes = numNodes;
+
+        List<DataSample> dataset = netTestingSettings.dataset;
+        RecallResult[] recallResults = new RecallResult[dataset.size()];
+        try (ShardCoordinator coordinator = new ShardCoordinator(netTestingSettings.trainedWeightsFilePath, numNodes, netTestingSettings.numShards)){
+            int sampleNum = 0;
+            for (DataSample sample : dataset){
+                recallResults[sampleNum] = coordinator.recallSample(sample.getPixelArray(), netTestingSettings);
+                sampleNum++;
+            }
+            return new ShardedRecallResult(recallResults, coordinator.getTimingReport());
+        } catch (IOException | IllegalArgumentException e){
+            System.out.println("Error running sharded recall: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public RecallResult recallSample(int[] inputArray, TestingSettings netTestingSettings) throws IOException{
+    /*
+    Recalls a single sample with synchronous updates across all shards.  Follows the
+    same steps, limits and best state rule as the SYNCHRONOUS update order in NeuralNet.
+
+    Waiting on shards never runs past the sample's time budget.  If a shard has not
+    replied by then the sample ends as BUDGET_EXHAUSTED, and the late replies are
+    collected at the start of the next sample, again within that sample's budget,
+    before its RESET puts every shard back in step.
+
+    Parameters:
+    - int[] inputArray: pixel array of the sample to recall
+    - TestingSettings netTestingSettings: holds the sweep and time limits
+
+    Return:
+    - RecallResult holding the status, best state and work done for the sample
+    */
+        if (inputArray.length != numNodes){
+            throw new IllegalArgumentException("sample has " + inputArray.length + " pixels but the net has " + numNodes + " nodes");
+        }
+        long deadline = System.nanoTime() + netTestingSettings.maxRecallMillis * 1_000_000L;
+
+        //Initialize output array, best state and seen states for the sample
+        int[] yArray = Arrays.copyOf(inputArray, numNodes);
+        int[] bestArray = Arrays.copyOf(yArray, numNodes);
+        long bestEnergy = Long.MAX_VALUE;
+        Map<Integer, List<long[]>> seenStates = new HashMap<>();
+        NeuralNet.recordState(seenStates, yArray);
+
+        //Collect replies left over from a sample that ran out of time
+        if (pendingReplies != null){
+            for (Future<int[]> reply : pendingReplies){
+                if (waitForReply(reply, deadline) == null){
+                    return new RecallResult(RecallResult.Status.BUDGET_EXHAUSTED, bestArray, 0, 0);
+                }
+            }
+            pendingReplies = null;
+        }
+
+        int sweeps = 0;
+        long fieldEvaluations = 0;
+        List<Integer> changedNodes = null;
+        while (sweeps < netTestingSettings.maxSweeps && System.nanoTime() - deadline <= 0){
+            //Send the full state on the first sweep, and only the flipped nodes after that
+            byte command;
+            int[] payload;
+            if (changedNodes == null){
+                command = ShardWorker.RESET;
+                payload = Arrays.copyOf(yArray, numNodes);
+            } else{
+                command = ShardWorker.STEP;
+                payload = new int[changedNodes.size()];
+                for (int k = 0; k < payload.length; k++){
+                    payload[k] = changedNodes.get(k);
+                }
+            }
+            long sendTime = System.nanoTime();
+            List<Future<int[]>> replies = new ArrayList<>(numShards);
+            for (int s = 0; s < numShards; s++){
+                final int shardNum = s;
+                replies.add(replyReaders.submit(() -> exchange(shardNum, command, payload)));
+            }
+
+            //Merge the replies in shard order, giving up once the time budget is spent
+            long energy = 0;
+            changedNodes = new ArrayList<>();
+            for (int s = 0; s < numShards; s++){
+                int[] shardChangedNodes = waitForReply(replies.get(s), deadline);
+                if (shardChangedNodes == null){
+                    pendingReplies = replies;
+                    return new RecallResult(RecallResult.Status.BUDGET_EXHAUSTED, bestArray, sweeps, fieldEvaluations);
+                }
+                for (int index : shardChangedNodes){
+                    changedNodes.add(index);
+                }
+                energy += replyEnergy[s];
+                shardWaitNanos[s] += replyArrivalNanos[s] - sendTime;
+            }
+            fieldEvaluations += numNodes;
+            sweeps++;
+
+            //Energy of the state the sweep started from
+            if (energy < bestEnergy){
+                bestEnergy = energy;
+                bestArray = Arrays.copyOf(yArray, numNodes);
+            }
+
+            //Check for convergence, then for a repeated state
+            if (changedNodes.isEmpty()){
+                return new RecallResult(RecallResult.Status.CONVERGED, yArray, sweeps, fieldEvaluations);
+            }
+            for (int index : changedNodes){
+                yArray[index] = -yArray[index];
+            }
+            if (!NeuralNet.recordState(seenStates, yArray)){
+                return new RecallResult(RecallResult.Status.CYCLED, bestArray, sweeps, fieldEvaluations);
+            }
+        }
+        return new RecallResult(RecallResult.Status.BUDGET_EXHAUSTED, bestArray, sweeps, fieldEvaluations);
+    }
+
+    private int[] exchange(int shardNum, byte command, int[] payload) throws IOException{
+    /*
+    Sends one sweep command to a shard and reads its reply, saving the shard's compute
+    time, energy and reply arrival time.  Runs on a reply reader thread so a stalled
+    worker never blocks the coordinator.
+
+    Parameters:
+    - int shardNum: shard to exchange with
+    - byte command: RESET with the full state as payload, or STEP with the flipped nodes
+    - int[] payload: values sent after the command
+
+    Return:
+    - int[] of the nodes in the shard that flip
+    */
+        DataOutputStream out = outputs[shardNum];
+        out.writeByte(command);
+        if (command == ShardWorker.STEP){
+            out.writeInt(payload.length);
+        }
+        for (int value : payload){
+            out.writeInt(value);
+        }
+        out.flush();
+
+        DataInputStream in = inputs[shardNum];
+        shardComputeNanos[shardNum] += in.readLong();
+        replyEnergy[shardNum] = in.readLong();
+        int[] changedNodes = new int[in.readInt()];
+        for (int k = 0; k < changedNodes.length; k++){
+            changedNodes[k] = in.readInt();
+        }
+        replyArrivalNanos[shardNum] = System.nanoTime();
+        return changedNodes;
+    }
+
+    private static int[] waitForReply(Future<int[]> reply, long deadline) throws IOException{
+    /*
+    Waits until deadline for a reply read by exchange, passing on any error reading it.
+
+    Parameters:
+    - Future<int[]> reply: pending reply
+    - long deadline: System.nanoTime() value to stop waiting at
+
+    Return:
+    - int[] of the nodes in the shard that flip, or null if the reply did not arrive in time
+    */
+        try {
+            return reply.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e){
+            return null;
+        } catch (ExecutionException e){
+            if (e.getCause() instanceof IOException){
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted waiting for a shard reply", e);
+        }
+    }
+
+    public String getTimingReport(){
+    /*
+    Builds a summary of time spent by each shard.  Compute time is measured inside the
+    worker, wait time runs from when a sweep was handed to the reply readers until that
+    worker's reply arrived.
+
+    Return:
+    - String with one line per shard
+    */
+        StringBuilder sb = new StringBuilder();
+        for (int s = 0; s < numShards; s++){
+            sb.append(String.format("Shard %d (nodes %d-%d): compute %.3f ms, wait %.3f ms%n",
+                    s, shardFirstNode[s], shardFirstNode[s + 1] - 1,
+                    shardComputeNanos[s] / 1e6, shardWaitNanos[s] / 1e6));
+        }
+        return sb.toString();
+    }
+
+    /*
+    Tells every worker to shut down, then closes sockets and waits for the processes to exit.
+    */
+    @Override
+    public void close(){
+        replyReaders.shutdownNow();
+        for (int s = 0; s < numShards; s++){
+            try {
+                if (outputs[s] != null){
+                    outputs[s].writeByte(ShardWorker.SHUTDOWN);
+                    outputs[s].flush();
+                }
+                if (sockets[s] != null){
+                    sockets[s].close();
+                }
+            } catch (IOException e){
+                // Worker already gone, nothing left to close
+            }
+        }
+        for (Process worker : workers){
+            if (worker == null){
+                continue;
+            }
+            try {
+                if (!worker.waitFor(5, TimeUnit.SECONDS)){
+                    worker.destroyForcibly();
+                }
+            } catch (InterruptedException e){
+                worker.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
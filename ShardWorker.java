@@ -0,0 +1,138 @@
+/*
+ * This program is a worker process for sharded recall.  It loads one range of columns
+ * of the trained weight matrix, the weights into its nodes, connects back to the ShardCoordinator over a local
+ * socket, and computes yIn and the next output of the nodes in its range for every
+ * synchronous sweep.  Only the indices of nodes that flipped are sent each way.
+ * 
+ * Authors:
+ * - Cory Tamburrino
+ * - David Kujawinski
+ * - Dinh Troung
+ * 
+ * Date Last Modified: 10/19/2026
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+
+public class ShardWorker {
+    // Commands sent by the coordinator
+    static final byte SHUTDOWN = 0;
+    static final byte RESET = 1;
+    static final byte STEP = 2;
+
+    /*
+    Runs the worker until the coordinator sends SHUTDOWN or closes the connection.
+
+    Parameters:
+    - String[] args: coordinator port, shard number, trained weights file, first node, node after last node
+    */
+    public static void main(String[] args){
+        int port = Integer.parseInt(args[0]);
+        int shardNum = Integer.parseInt(args[1]);
+        String trainedWeightsFileName = args[2];
+        int firstNode = Integer.parseInt(args[3]);
+        int lastNode = Integer.parseInt(args[4]);
+
+        int[][] weightColumns = FileParser.parseTrainedWeightColumns(trainedWeightsFileName, firstNode, lastNode);
+        if (weightColumns == null){
+            System.exit(1);
+        }
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)){
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(shardNum);
+            out.flush();
+            serve(in, out, weightColumns, firstNode);
+        } catch (IOException e){
+            System.out.println("Shard " + shardNum + " failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void serve(DataInputStream in, DataOutputStream out, int[][] weightColumns, int firstNode) throws IOException{
+    /*
+    Answers coordinator commands.  RESET carries the full state of the net, STEP carries
+    the indices of the nodes that flipped in the last sweep.  Both are answered with the
+    compute time, this shard's part of the net energy, and the indices of the nodes in
+    this shard whose output changes.
+
+    Parameters:
+    - DataInputStream in: commands from the coordinator
+    - DataOutputStream out: replies to the coordinator
+    - int[][] weightColumns: this shard's columns of the weight matrix, indexed [row][node - firstNode]
+    - int firstNode: index of the first node in this shard
+    */
+        int numNodes = weightColumns.length;
+        int numShardNodes = numNodes > 0 ? weightColumns[0].length : 0;
+        int[] yArray = new int[numNodes];
+        int[] fieldArray = new int[numShardNodes];
+        int[] changedNodes = new int[numShardNodes];
+
+        while (true){
+            byte command = in.readByte();
+            if (command == SHUTDOWN){
+                return;
+            }
+            long startTime = System.nanoTime();
+
+            if (command == RESET){
+                //Load the full state and calculate the weighted sum of every node in the shard
+                for (int j = 0; j < numNodes; j++){
+                    yArray[j] = in.readInt();
+                }
+                startTime = System.nanoTime();
+                Arrays.fill(fieldArray, 0);
+                for (int j = 0; j < numNodes; j++){
+                    int[] weightRow = weightColumns[j];
+                    int y = yArray[j];
+                    for (int i = 0; i < numShardNodes; i++){
+                        fieldArray[i] += y * weightRow[i];
+                    }
+                }
+            } else{
+                //Apply the flipped nodes to the weighted sums
+                int numFlips = in.readInt();
+                for (int k = 0; k < numFlips; k++){
+                    int j = in.readInt();
+                    yArray[j] = -yArray[j];
+                    int delta = 2 * yArray[j];
+                    int[] weightRow = weightColumns[j];
+                    for (int i = 0; i < numShardNodes; i++){
+                        fieldArray[i] += delta * weightRow[i];
+                    }
+                }
+            }
+
+            //Calculate yIn and yOut of every node in the shard
+            long energy = 0;
+            int numChanged = 0;
+            for (int i = 0; i < numShardNodes; i++){
+                int y = yArray[firstNode + i];
+                int yIn = y + fieldArray[i];
+                energy -= (long) y * fieldArray[i];
+                if (NeuralNet.applyActivationFunction(yIn, y) != y){
+                    changedNodes[numChanged] = firstNode + i;
+                    numChanged++;
+                }
+            }
+            long computeNanos = System.nanoTime() - startTime;
+
+            out.writeLong(computeNanos);
+            out.writeLong(energy);
+            out.writeInt(numChanged);
+            for (int k = 0; k < numChanged; k++){
+                out.writeInt(changedNodes[k]);
+            }
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * This program is a data structure to hold the results of a sharded recall run
+ * along with the per shard timing report.
+ * 
+ * Authors:
+ * - Cory Tamburrino
+ * - David Kujawinski
+ * - Dinh Troung
+ * 
+ * Date Last Modified: 10/19/2026
+ */
+
+public class ShardedRecallResult {
+    // Instance Variables
+    private RecallResult[] recallResults;
+    private String timingReport;
+
+    // Constructor
+    public ShardedRecallResult(RecallResult[] recallResults, String timingReport){
+        this.recallResults = recallResults;
+        this.timingReport = timingReport;
+    }
+
+    // Getters
+    public RecallResult[] getRecallResults(){
+        return recallResults;
+    }
+
+    public String getTimingReport(){
+        return timingReport;
+    }
+}
@@ -6,16 +6,31 @@
  * - David Kujawinski
  * - Dinh Troung
  * 
- * Date Last Modified: 3/7/2025
+ * Date Last Modified: 10/19/2026
  */
 
 import java.util.List;
 
 public class TestingSettings {
+    // Order in which neurons are updated during recall
+    public enum UpdateOrder {
+        RANDOM,
+        GREEDY,
+        SYNCHRONOUS
+    }
+
     String trainedWeightsFilePath;
     String testingDataFilePath;
     String testingResultsOutputFilePath;
     int[][] trainedWeightMatrix;
     List<DataSample> dataset;
     int numNodes;
+
+    // Per-sample recall limits
+    int maxSweeps = 1000;
+    long maxRecallMillis = 10000;
+    UpdateOrder updateOrder = UpdateOrder.RANDOM;
+
+    // Number of worker processes to split recall across, sharded recall is always synchronous
+    int numShards = 1;
 }
@@ -0,0 +1,128 @@
+/*
+ * This program is a bucketed priority queue of unstable neurons used by the greedy
+ * update order.  Neurons are kept in one bucket per |local field| so the most
+ * unstable neuron can be taken next, and any neuron can be moved or removed in
+ * constant time when its field changes.  The caller sizes the queue with the largest
+ * |local field| any neuron can reach, so fields that grow after flips still get
+ * their own bucket.
+ * 
+ * Authors:
+ * - Cory Tamburrino
+ * - David Kujawinski
+ * - Dinh Troung
+ * 
+ * Date Last Modified: 10/19/2026
+ */
+
+import java.util.Arrays;
+
+public class UnstableNeuronQueue {
+    // Largest number of buckets, bounds memory for weight files with huge values
+    static final int MAX_BUCKETS = 1 << 20;
+
+    // Instance Variables
+    private int[] bucketHead;
+    private int[] next;
+    private int[] prev;
+    private int[] bucketOf;
+    private int topBucket;
+    private int size;
+
+    // Constructor
+    public UnstableNeuronQueue(int numNodes, long maxPriority){
+        // One bucket per priority up to maxPriority.  Only if that is more than
+        // MAX_BUCKETS do the highest priorities share the top bucket and count as equal.
+        this.bucketHead = new int[(int) Math.min(maxPriority + 1, MAX_BUCKETS)];
+        this.next = new int[numNodes];
+        this.prev = new int[numNodes];
+        this.bucketOf = new int[numNodes];
+        Arrays.fill(bucketHead, -1);
+        Arrays.fill(bucketOf, -1);
+        this.topBucket = -1;
+        this.size = 0;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /*
+    Removes every queued neuron so the queue can be reused for another sample.
+    */
+    public void clear(){
+        for (int neuron = 0; neuron < bucketOf.length; neuron++){
+            remove(neuron);
+        }
+        topBucket = -1;
+    }
+
+    public void update(int neuron, int priority){
+    /*
+    Adds neuron to the queue, or moves it if its priority changed.
+
+    Parameters:
+    - int neuron: index of the neuron
+    - int priority: |local field| of the neuron
+    */
+        int bucket = Math.min(priority, bucketHead.length - 1);
+        if (bucketOf[neuron] == bucket){
+            return;
+        }
+        remove(neuron);
+
+        // Push onto the front of the bucket
+        next[neuron] = bucketHead[bucket];
+        prev[neuron] = -1;
+        if (bucketHead[bucket] != -1){
+            prev[bucketHead[bucket]] = neuron;
+        }
+        bucketHead[bucket] = neuron;
+        bucketOf[neuron] = bucket;
+        size++;
+
+        if (bucket > topBucket){
+            topBucket = bucket;
+        }
+    }
+
+    public void remove(int neuron){
+    /*
+    Removes neuron from the queue if it is queued.
+
+    Parameters:
+    - int neuron: index of the neuron
+    */
+        int bucket = bucketOf[neuron];
+        if (bucket == -1){
+            return;
+        }
+        if (prev[neuron] != -1){
+            next[prev[neuron]] = next[neuron];
+        } else{
+            bucketHead[bucket] = next[neuron];
+        }
+        if (next[neuron] != -1){
+            prev[next[neuron]] = prev[neuron];
+        }
+        bucketOf[neuron] = -1;
+        size--;
+    }
+
+    public int poll(){
+    /*
+    Removes and returns the neuron with the largest priority.
+
+    Return:
+    - int index of the neuron, or -1 if the queue is empty
+    */
+        if (size == 0){
+            return -1;
+        }
+        while (bucketHead[topBucket] == -1){
+            topBucket--;
+        }
+        int neuron = bucketHead[topBucket];
+        remove(neuron);
+        return neuron;
+    }
+}
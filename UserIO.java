@@ -7,7 +7,7 @@
  * - David Kujawinski
  * - Dinh Troung
  * 
- * Date Last Modified: 4/9/2025
+ * Date Last Modified: 10/19/2026
  */
 
 import java.io.BufferedWriter;
@@ -66,9 +66,28 @@ public class UserIO {
                 case 2:
                     netTestingSettings = getTestingSettings(netTestingSettings);
                     netTestingSettings.dataset = FileParser.parseDataFile(netTestingSettings.testingDataFilePath);
-                    FileParser.parseTrainedWeights(netTestingSettings);
-                    int testingResults[][] = NeuralNet.test(netTestingSettings);
-                    saveResultsToFile(testingResults, netTestingSettings.testingResultsOutputFilePath, netTestingSettings.dataset);
+                    // Sharded recall leaves the weights to the worker processes
+                    if (netTestingSettings.numShards <= 1){
+                        FileParser.parseTrainedWeights(netTestingSettings);
+                    }
+                    RecallResult[] testingResults;
+                    String shardTimingReport = null;
+                    if (netTestingSettings.numShards > 1){
+                        ShardedRecallResult shardedResult = ShardCoordinator.recall(netTestingSettings);
+                        testingResults = shardedResult == null ? null : shardedResult.getRecallResults();
+                        shardTimingReport = shardedResult == null ? null : shardedResult.getTimingReport();
+                    }else{
+                        testingResults = NeuralNet.recall(netTestingSettings);
+                    }
+                    if (testingResults != null){
+                        saveResultsToFile(testingResults, netTestingSettings.testingResultsOutputFilePath, netTestingSettings.dataset);
+                        if (shardTimingReport != null){
+                            System.out.println("Per shard timing:");
+                            System.out.println(shardTimingReport);
+                        }
+                    }else{
+                        System.out.println("Failed to execute testing algorithm.");
+                    }
                     return 2;
                 // User quits program
                 case 3:
@@ -172,9 +191,68 @@ public class UserIO {
         String testingResultsOutputFile = getValidFilename(testingResultsPrompt);
         netTestingSettings.testingResultsOutputFilePath = testingResultsOutputFile;
 
+        // Get per-sample recall limits
+        String maxSweepsPrompt = "\nEnter the maximum sweeps per sample (press Enter for "
+                + netTestingSettings.maxSweeps + "):";
+        netTestingSettings.maxSweeps = (int) getNumberWithDefault(maxSweepsPrompt, netTestingSettings.maxSweeps, 1, Integer.MAX_VALUE);
+
+        String maxRecallMillisPrompt = "\nEnter the time limit per sample in milliseconds (press Enter for "
+                + netTestingSettings.maxRecallMillis + "):";
+        netTestingSettings.maxRecallMillis = getNumberWithDefault(maxRecallMillisPrompt, netTestingSettings.maxRecallMillis, 1, Long.MAX_VALUE / 1_000_000L);
+
+        // Get number of worker processes to split recall across
+        String numShardsPrompt = "\nEnter the number of worker processes to split recall across (press Enter for 1):";
+        netTestingSettings.numShards = (int) getNumberWithDefault(numShardsPrompt, 1, 1, 256);
+
+        // Get neuron update order, sharded recall is always synchronous
+        if (netTestingSettings.numShards > 1){
+            netTestingSettings.updateOrder = TestingSettings.UpdateOrder.SYNCHRONOUS;
+        } else{
+            String updateOrderPrompt = "\nEnter the update order, 1 for random, 2 for greedy or 3 for synchronous (press Enter for random):";
+            long updateOrderChoice = getNumberWithDefault(updateOrderPrompt, 1, 1, 3);
+            if (updateOrderChoice == 2){
+                netTestingSettings.updateOrder = TestingSettings.UpdateOrder.GREEDY;
+            } else if (updateOrderChoice == 3){
+                netTestingSettings.updateOrder = TestingSettings.UpdateOrder.SYNCHRONOUS;
+            } else{
+                netTestingSettings.updateOrder = TestingSettings.UpdateOrder.RANDOM;
+            }
+        }
+
         return netTestingSettings;
     }
 
+    /*
+    Prompts user for a whole number, using a default value if the user just presses Enter.
+
+    Parameters:
+    - prompt - prompt to display to user
+    - defaultValue - value used when no number is entered
+    - minValue - smallest value accepted
+    - maxValue - largest value accepted
+
+    Return:
+    - a long representing the user's number
+    */
+    private static long getNumberWithDefault(String prompt, long defaultValue, long minValue, long maxValue){
+        while (true){
+            System.out.println(prompt);
+            String input = scanner.nextLine().trim();
+            if (input.isEmpty()){
+                return defaultValue;
+            }
+            try {
+                long value = Long.parseLong(input);
+                if (value >= minValue && value <= maxValue){
+                    return value;
+                }
+            } catch (NumberFormatException e){
+                // Fall through to the retry message
+            }
+            System.out.println("Please enter a number from " + minValue + " to " + maxValue + "!");
+        }
+    }
+
     /*
     Prompts user with question, and collects String response.
 
@@ -200,19 +278,19 @@ public class UserIO {
         return filePath;
     }
 
-    public static void saveResultsToFile(int[][] testingResults, String testingResultsOutputFilePath, List<DataSample> testingImages){
+    public static void saveResultsToFile(RecallResult[] testingResults, String testingResultsOutputFilePath, List<DataSample> testingImages){
     /*
     Saves classification results from testing to output file specified by user
 
     Parameters:
-    - int[][] testingResults: Matrix representing testing results
+    - RecallResult[] testingResults: recall status and best state for each sample
     - String testingResultsOutputFilePath: filepath of output file specified by user
     - List<DataSample> representing the original testing images
     */
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(testingResultsOutputFilePath))) {
             for (int i = 0; i < testingResults.length; i++){
                 DataSample currentTestingSample = testingImages.get(i);
-                int[] currentTestingResult = testingResults[i];
+                RecallResult currentTestingResult = testingResults[i];
 
                 //print input test image
                 writer.write("Input test image:\n");
@@ -220,7 +298,9 @@ public class UserIO {
 
                 //print associated stored image:
                 writer.write("The associated stored image:\n");
-                writer.write(arrayToString(currentTestingResult, currentTestingSample.getRowDimension()));
+                writer.write(arrayToString(currentTestingResult.getBestState(), currentTestingSample.getRowDimension()));
+                writer.write("Recall status: " + currentTestingResult.getStatus() + " after " + currentTestingResult.getSweeps() + " sweeps, "
+                        + currentTestingResult.getFieldEvaluations() + " field evaluations\n");
 
                 writer.newLine();
                 writer.newLine();